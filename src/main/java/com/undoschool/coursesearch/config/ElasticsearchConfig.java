@@ -1,5 +1,7 @@
 package com.undoschool.coursesearch.config;
 
+import co.elastic.clients.elasticsearch.ElasticsearchAsyncClient;
+import co.elastic.clients.transport.ElasticsearchTransport;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.data.elasticsearch.client.ClientConfiguration;
@@ -19,4 +21,13 @@ public class ElasticsearchConfig extends ElasticsearchConfiguration {
             .connectedTo("localhost:9200")
             .build();
     }
+
+    /**
+     * Asynchronous client on the same transport, used for hedged searches: cancelling one of its
+     * futures aborts the HTTP request
+     */
+    @Bean
+    public ElasticsearchAsyncClient elasticsearchAsyncClient(ElasticsearchTransport transport) {
+        return new ElasticsearchAsyncClient(transport);
+    }
 }
@@ -0,0 +1,25 @@
+package com.undoschool.coursesearch.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * Shard layout of the courses index
+ */
+@Data
+@ConfigurationProperties(prefix = "course-search.index")
+public class IndexProperties {
+
+    /**
+     * Route documents to shards by category, so category-filtered searches query a single shard.
+     * Changing this requires reindexing, since existing documents stay on the shard they were routed to.
+     */
+    private boolean routeByCategory = false;
+
+    /**
+     * Number of primary shards used when the index is created
+     */
+    private int shards = 1;
+
+    private int replicas = 1;
+}
@@ -0,0 +1,95 @@
+package com.undoschool.coursesearch.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * Latency budget and hedging settings for course searches
+ */
+@Data
+@ConfigurationProperties(prefix = "course-search.search")
+public class SearchProperties {
+
+    /**
+     * Server-side search timeout; shards that miss it return what they have collected so far
+     */
+    private Duration timeout = Duration.ofMillis(500);
+
+    /**
+     * Total time a caller waits for any search attempt before the request fails
+     */
+    private Duration budget = Duration.ofSeconds(2);
+
+    /**
+     * Default for allow_partial_search_results when the client does not say otherwise
+     */
+    private boolean allowPartialResults = true;
+
+    /**
+     * Copy search hits from the raw Elasticsearch response body to the HTTP response instead of
+     * building documents and DTOs for every hit
+     */
+    private boolean streaming = true;
+
+    private final Hedge hedge = new Hedge();
+
+    private final SpellCorrection spellCorrection = new SpellCorrection();
+
+    @Data
+    public static class Hedge {
+
+        private boolean enabled = true;
+
+        /**
+         * Latency percentile of recent attempts after which a hedged attempt is sent
+         */
+        private double percentile = 95.0;
+
+        /**
+         * Lower bound for the hedge delay, so a fast cluster does not double its load
+         */
+        private Duration minDelay = Duration.ofMillis(50);
+
+        /**
+         * Hedge delay used until enough samples have been recorded
+         */
+        private Duration initialDelay = Duration.ofMillis(200);
+
+        /**
+         * Number of recent attempt latencies the percentile is computed over
+         */
+        private int window = 1000;
+
+        private int minSamples = 50;
+
+        /**
+         * Share of searches that may send a hedged attempt over time
+         */
+        private double maxRatio = 0.1;
+
+        /**
+         * Hedges that may be sent in a row before the ratio applies, e.g. after a quiet period
+         */
+        private int burst = 10;
+    }
+
+    @Data
+    public static class SpellCorrection {
+
+        private boolean enabled = true;
+
+        /**
+         * A text search finding fewer courses than this is retried with the suggested spelling.
+         * The default only corrects searches that found nothing, so correctly spelled searches
+         * with few results do not pay for a suggest call and a retry.
+         */
+        private int minHits = 1;
+
+        /**
+         * Maximum number of misspelled terms the phrase suggester may correct
+         */
+        private double maxErrors = 2.0;
+    }
+}
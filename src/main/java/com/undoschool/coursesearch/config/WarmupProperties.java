@@ -0,0 +1,43 @@
+package com.undoschool.coursesearch.config;
+
+import com.undoschool.coursesearch.dto.CourseSearchRequestDto;
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Startup warmup settings
+ */
+@Data
+@ConfigurationProperties(prefix = "course-search.warmup")
+public class WarmupProperties {
+
+    private boolean enabled = true;
+
+    /**
+     * Number of times each representative query and suggest prefix is replayed
+     */
+    private int iterations = 10;
+
+    /**
+     * Number of client connections opened concurrently before any query is replayed
+     */
+    private int connections = 4;
+
+    /**
+     * Representative search requests to replay
+     */
+    private List<CourseSearchRequestDto> queries = new ArrayList<>();
+
+    /**
+     * Representative autocomplete prefixes to replay
+     */
+    private List<String> suggestPrefixes = new ArrayList<>();
+
+    /**
+     * Exit once warmup completes; used for Class Data Sharing training runs
+     */
+    private boolean exitAfterWarmup = false;
+}
@@ -1,17 +1,26 @@
 package com.undoschool.coursesearch.controller;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.undoschool.coursesearch.config.SearchProperties;
 import com.undoschool.coursesearch.dto.CourseSearchRequestDto;
 import com.undoschool.coursesearch.dto.CourseSearchResponseDto;
 import com.undoschool.coursesearch.service.CourseSearchService;
+import jakarta.servlet.http.HttpServletResponse;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.dao.QueryTimeoutException;
 import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.io.IOException;
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Map;
 
 /**
  * REST controller for course search API
@@ -23,12 +32,15 @@ import java.util.List;
 public class CourseSearchController {
 
     private final CourseSearchService courseSearchService;
+    private final SearchProperties searchProperties;
+    private final ObjectMapper objectMapper;
 
     /**
-     * Search courses with filters, pagination, and sorting
+     * Search courses with filters, pagination, and sorting. With streaming enabled the search
+     * response body is copied to the HTTP output stream in the same JSON format.
      */
     @GetMapping("/search")
-    public ResponseEntity<CourseSearchResponseDto> searchCourses(
+    public void searchCourses(
             @RequestParam(required = false) String q,
             @RequestParam(required = false) Integer minAge,
             @RequestParam(required = false) Integer maxAge,
@@ -39,7 +51,9 @@ public class CourseSearchController {
             @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime startDate,
             @RequestParam(defaultValue = "upcoming") String sort,
             @RequestParam(defaultValue = "0") Integer page,
-            @RequestParam(defaultValue = "10") Integer size) {
+            @RequestParam(defaultValue = "10") Integer size,
+            @RequestParam(required = false) Boolean allowPartial,
+            HttpServletResponse httpResponse) throws IOException {
         
         CourseSearchRequestDto request = CourseSearchRequestDto.builder()
             .q(q)
@@ -53,15 +67,22 @@ public class CourseSearchController {
             .sort(sort)
             .page(page)
             .size(size)
+            .allowPartial(allowPartial)
             .build();
         
         log.info("Searching courses with parameters: {}", request);
         
-        CourseSearchResponseDto response = courseSearchService.searchCourses(request);
-        
-        log.info("Found {} courses", response.getTotal());
+        httpResponse.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        long total;
+        if (searchProperties.isStreaming()) {
+            total = courseSearchService.streamSearchCourses(request, httpResponse.getOutputStream());
+        } else {
+            CourseSearchResponseDto response = courseSearchService.searchCourses(request);
+            objectMapper.writeValue(httpResponse.getOutputStream(), response);
+            total = response.getTotal();
+        }
         
-        return ResponseEntity.ok(response);
+        log.info("Found {} courses", total);
     }
 
     /**
@@ -89,4 +110,26 @@ public class CourseSearchController {
     public ResponseEntity<String> health() {
         return ResponseEntity.ok("Course Search API is running!");
     }
+
+    /**
+     * The search ran past its latency budget; the client may retry
+     */
+    @ExceptionHandler(QueryTimeoutException.class)
+    public ResponseEntity<Map<String, String>> handleSearchTimeout(QueryTimeoutException e) {
+        log.warn("Search timed out: {}", e.getMessage());
+        return ResponseEntity.status(HttpStatus.GATEWAY_TIMEOUT)
+            .contentType(MediaType.APPLICATION_JSON)
+            .body(Map.of("error", "Search timed out"));
+    }
+
+    /**
+     * Elasticsearch could not be reached or is overloaded; the client may retry
+     */
+    @ExceptionHandler(DataAccessResourceFailureException.class)
+    public ResponseEntity<Map<String, String>> handleSearchUnavailable(DataAccessResourceFailureException e) {
+        log.warn("Search unavailable", e);
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+            .contentType(MediaType.APPLICATION_JSON)
+            .body(Map.of("error", "Search is temporarily unavailable"));
+    }
 }
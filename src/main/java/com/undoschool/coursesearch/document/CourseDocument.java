@@ -9,6 +9,7 @@ import org.springframework.data.annotation.Id;
 import org.springframework.data.elasticsearch.annotations.Document;
 import org.springframework.data.elasticsearch.annotations.Field;
 import org.springframework.data.elasticsearch.annotations.FieldType;
+import org.springframework.data.elasticsearch.annotations.Routing;
 import org.springframework.data.elasticsearch.annotations.CompletionField;
 import org.springframework.data.elasticsearch.core.suggest.Completion;
 
@@ -22,7 +23,8 @@ import java.time.LocalDateTime;
 @Builder
 @NoArgsConstructor
 @AllArgsConstructor
-@Document(indexName = "courses")
+@Document(indexName = "courses", createIndex = false) // created by CourseIndexService with the configured shard layout
+@Routing("#{@courseIndexService.indexRouting(#entity)}") // category when route-by-category is enabled, otherwise the id
 public class CourseDocument {
 
     @Id
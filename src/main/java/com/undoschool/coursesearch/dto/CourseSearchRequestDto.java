@@ -27,4 +27,5 @@ public class CourseSearchRequestDto {
     private String sort; // upcoming, priceAsc, priceDesc
     private Integer page;
     private Integer size;
+    private Boolean allowPartial; // accept partial results when shards time out or fail
 }
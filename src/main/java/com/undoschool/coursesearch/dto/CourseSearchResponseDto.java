@@ -18,5 +18,7 @@ public class CourseSearchResponseDto {
     private long total;
     private int page;
     private int size;
+    private boolean partial; // true if some shards timed out or failed
+    private String didYouMean; // corrected query text the results were found with, if any
     private List<CourseResponseDto> courses;
 }
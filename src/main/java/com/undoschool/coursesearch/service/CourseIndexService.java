@@ -0,0 +1,128 @@
+package com.undoschool.coursesearch.service;
+
+import co.elastic.clients.elasticsearch.ElasticsearchClient;
+import co.elastic.clients.elasticsearch.core.SearchResponse;
+import co.elastic.clients.elasticsearch.core.search.Hit;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.undoschool.coursesearch.config.IndexProperties;
+import com.undoschool.coursesearch.document.CourseDocument;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.elasticsearch.core.ElasticsearchOperations;
+import org.springframework.data.elasticsearch.core.IndexOperations;
+import org.springframework.data.elasticsearch.core.document.Document;
+import org.springframework.data.elasticsearch.core.event.BeforeConvertCallback;
+import org.springframework.data.elasticsearch.core.mapping.IndexCoordinates;
+import org.springframework.data.elasticsearch.core.routing.RoutingResolver;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Creates the courses index with the configured shard layout and decides the category routing of
+ * indexed courses and searches. With category routing enabled, the index requires a routing value,
+ * so id-only calls such as {@code CourseRepository.findById} and {@code deleteById} fail instead of
+ * silently missing the document.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class CourseIndexService implements BeforeConvertCallback<CourseDocument> {
+
+    private final ElasticsearchOperations elasticsearchOperations;
+    private final ElasticsearchClient elasticsearchClient;
+    private final IndexProperties indexProperties;
+
+    /**
+     * Create the courses index with the configured shards and replicas if it does not exist yet
+     */
+    public void ensureIndex() {
+        IndexOperations indexOps = elasticsearchOperations.indexOps(CourseDocument.class);
+        if (indexOps.exists()) {
+            return;
+        }
+        Map<String, Object> settings = Map.of(
+            "index.number_of_shards", indexProperties.getShards(),
+            "index.number_of_replicas", indexProperties.getReplicas()
+        );
+        Document mapping = indexOps.createMapping();
+        if (indexProperties.isRouteByCategory()) {
+            // Reject reads and writes without routing; they would otherwise go to the shard of the id
+            mapping.put("_routing", Map.of("required", true));
+        }
+        indexOps.create(settings, mapping);
+        log.info("Created index {} with {} shards (routeByCategory={})",
+            indexOps.getIndexCoordinates().getIndexName(), indexProperties.getShards(),
+            indexProperties.isRouteByCategory());
+    }
+
+    /**
+     * Routing value for indexing the course, or null to route by id. Referenced from the
+     * {@code @Routing} expression on {@link CourseDocument}, so it applies to every save; courses
+     * without a category are routed by their id explicitly, since the index requires a value.
+     */
+    public String indexRouting(CourseDocument course) {
+        if (!indexProperties.isRouteByCategory()) {
+            return null;
+        }
+        String routing = searchRouting(course.getCategory());
+        return routing != null ? routing : course.getId();
+    }
+
+    /**
+     * Routing value for a search filtered by the given category, or null to search all shards
+     */
+    public String searchRouting(String category) {
+        if (!indexProperties.isRouteByCategory() || category == null || category.trim().isEmpty()) {
+            return null;
+        }
+        return category;
+    }
+
+    /**
+     * Delete the indexed copy of a course whose category changed before it is saved, since the new
+     * copy is routed to another shard and would not replace it. This costs one search per save
+     * when category routing is enabled. The search is near real-time, so a course saved again
+     * within one refresh interval of being indexed may still leave its old copy behind.
+     */
+    @Override
+    public CourseDocument onBeforeConvert(CourseDocument course, IndexCoordinates index) {
+        if (!indexProperties.isRouteByCategory() || course.getId() == null) {
+            return course;
+        }
+        String previousRouting = indexedRouting(course.getId(), index);
+        String routing = indexRouting(course);
+        if (previousRouting != null && !previousRouting.equals(routing)) {
+            log.debug("Course {} moved from routing {} to {}, deleting its old copy", course.getId(),
+                previousRouting, routing);
+            elasticsearchOperations.withRouting(RoutingResolver.just(previousRouting)).delete(course.getId(), index);
+        }
+        return course;
+    }
+
+    /**
+     * Routing the course is currently indexed with, or null if it is not indexed. Searches all
+     * shards because the routing is what is unknown.
+     */
+    private String indexedRouting(String id, IndexCoordinates index) {
+        try {
+            SearchResponse<ObjectNode> response = elasticsearchClient.search(s -> s
+                    .index(index.getIndexNames()[0])
+                    .query(q -> q.ids(i -> i.values(id)))
+                    .source(src -> src.fetch(false))
+                    .size(1),
+                ObjectNode.class
+            );
+            return response.hits().hits().stream()
+                .map(Hit::routing)
+                .filter(Objects::nonNull)
+                .findFirst()
+                .orElse(null);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not look up the routing of course " + id, e);
+        }
+    }
+}
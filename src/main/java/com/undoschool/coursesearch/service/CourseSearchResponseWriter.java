@@ -0,0 +1,238 @@
+package com.undoschool.coursesearch.service;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.List;
+
+/**
+ * Writes a raw Elasticsearch search response body to the client in the
+ * {@link com.undoschool.coursesearch.dto.CourseSearchResponseDto} JSON format, copying each hit's
+ * source token by token instead of materializing documents and DTOs. The body itself has already
+ * been buffered by the low-level client; what is saved is the per-hit object graph.
+ */
+@Component
+public class CourseSearchResponseWriter {
+
+    /**
+     * Source fields of a hit that make up a course in the response, in response order
+     */
+    public static final List<String> COURSE_FIELDS = List.of(
+        "title", "description", "category", "type", "gradeRange", "minAge", "maxAge", "price", "nextSessionDate"
+    );
+
+    /**
+     * filter_path that trims the search response down to what {@link #write} reads
+     */
+    public static final String FILTER_PATH = "timed_out,_shards.failed,hits.total.value,hits.hits._id,hits.hits._source";
+
+    private final JsonFactory jsonFactory;
+
+    public CourseSearchResponseWriter(ObjectMapper objectMapper) {
+        this.jsonFactory = objectMapper.getFactory();
+    }
+
+    /**
+     * Copy the search response to the output stream and return the total number of matching courses
+     */
+    public long write(InputStream searchResponse, int page, int size, String didYouMean, OutputStream out)
+            throws IOException {
+        try (JsonParser parser = jsonFactory.createParser(searchResponse);
+             JsonGenerator generator = jsonFactory.createGenerator(out)) {
+            generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            return copy(parser, generator, new ResponseHeader(page, size, didYouMean));
+        }
+    }
+
+    /**
+     * Read only the total number of matching courses, stopping before the hits
+     */
+    public long readTotal(InputStream searchResponse) throws IOException {
+        try (JsonParser parser = jsonFactory.createParser(searchResponse)) {
+            expect(parser.nextToken(), JsonToken.START_OBJECT);
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String name = parser.getCurrentName();
+                parser.nextToken();
+                if (!"hits".equals(name)) {
+                    parser.skipChildren();
+                    continue;
+                }
+                while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                    String hitsField = parser.getCurrentName();
+                    if (parser.nextToken() == JsonToken.START_OBJECT && "total".equals(hitsField)) {
+                        return readTotal(parser);
+                    }
+                    parser.skipChildren();
+                }
+            }
+            return 0;
+        }
+    }
+
+    private long copy(JsonParser parser, JsonGenerator generator, ResponseHeader header) throws IOException {
+        expect(parser.nextToken(), JsonToken.START_OBJECT);
+
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String name = parser.getCurrentName();
+            parser.nextToken();
+            switch (name) {
+                case "timed_out" -> header.timedOut = parser.getBooleanValue();
+                case "_shards" -> header.failedShards = readFailedShards(parser);
+                case "hits" -> copyHits(parser, generator, header);
+                default -> parser.skipChildren();
+            }
+        }
+
+        // No hits array is present when nothing matched
+        header.writeIfPending(generator);
+        generator.writeEndArray();
+        generator.writeEndObject();
+        return header.total;
+    }
+
+    private static int readFailedShards(JsonParser parser) throws IOException {
+        int failed = 0;
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String name = parser.getCurrentName();
+            parser.nextToken();
+            if ("failed".equals(name)) {
+                failed = parser.getIntValue();
+            } else {
+                parser.skipChildren();
+            }
+        }
+        return failed;
+    }
+
+    private static void copyHits(JsonParser parser, JsonGenerator generator, ResponseHeader header) throws IOException {
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String name = parser.getCurrentName();
+            JsonToken token = parser.nextToken();
+            if ("total".equals(name) && token == JsonToken.START_OBJECT) {
+                header.total = readTotal(parser);
+            } else if ("hits".equals(name) && token == JsonToken.START_ARRAY) {
+                header.writeIfPending(generator);
+                while (parser.nextToken() == JsonToken.START_OBJECT) {
+                    copyHit(parser, generator);
+                }
+            } else {
+                parser.skipChildren();
+            }
+        }
+    }
+
+    private static long readTotal(JsonParser parser) throws IOException {
+        long total = 0;
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String name = parser.getCurrentName();
+            parser.nextToken();
+            if ("value".equals(name)) {
+                total = parser.getLongValue();
+            } else {
+                parser.skipChildren();
+            }
+        }
+        return total;
+    }
+
+    private static void copyHit(JsonParser parser, JsonGenerator generator) throws IOException {
+        generator.writeStartObject();
+        boolean idWritten = false;
+        int written = 0;
+
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String name = parser.getCurrentName();
+            JsonToken token = parser.nextToken();
+            if ("_id".equals(name)) {
+                generator.writeFieldName("id");
+                generator.copyCurrentEvent(parser);
+                idWritten = true;
+            } else if ("_source".equals(name) && token == JsonToken.START_OBJECT) {
+                written = copySource(parser, generator);
+            } else {
+                parser.skipChildren();
+            }
+        }
+
+        if (!idWritten) {
+            generator.writeNullField("id");
+        }
+        // Missing source fields are serialized as null, as they are for the DTO
+        for (int i = 0; i < COURSE_FIELDS.size(); i++) {
+            if ((written & (1 << i)) == 0) {
+                generator.writeNullField(COURSE_FIELDS.get(i));
+            }
+        }
+        generator.writeEndObject();
+    }
+
+    /**
+     * Copy the known course fields of the source and return a bit set of the fields written
+     */
+    private static int copySource(JsonParser parser, JsonGenerator generator) throws IOException {
+        int written = 0;
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String name = parser.getCurrentName();
+            parser.nextToken();
+            int index = COURSE_FIELDS.indexOf(name);
+            if (index < 0) {
+                parser.skipChildren();
+                continue;
+            }
+            generator.writeFieldName(name);
+            generator.copyCurrentStructure(parser);
+            written |= 1 << index;
+        }
+        return written;
+    }
+
+    private static void expect(JsonToken actual, JsonToken expected) throws IOException {
+        if (actual != expected) {
+            throw new IOException("Unexpected search response token " + actual + ", expected " + expected);
+        }
+    }
+
+    /**
+     * Response fields that precede the course array; written once the hits array is reached
+     */
+    private static final class ResponseHeader {
+        private final int page;
+        private final int size;
+        private final String didYouMean;
+        private long total;
+        private boolean timedOut;
+        private int failedShards;
+        private boolean written;
+
+        private ResponseHeader(int page, int size, String didYouMean) {
+            this.page = page;
+            this.size = size;
+            this.didYouMean = didYouMean;
+        }
+
+        private void writeIfPending(JsonGenerator generator) throws IOException {
+            if (written) {
+                return;
+            }
+            generator.writeStartObject();
+            generator.writeNumberField("total", total);
+            generator.writeNumberField("page", page);
+            generator.writeNumberField("size", size);
+            generator.writeBooleanField("partial", timedOut || failedShards > 0);
+            if (didYouMean != null) {
+                generator.writeStringField("didYouMean", didYouMean);
+            } else {
+                generator.writeNullField("didYouMean");
+            }
+            generator.writeArrayFieldStart("courses");
+            written = true;
+        }
+    }
+}
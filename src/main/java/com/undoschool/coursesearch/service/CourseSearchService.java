@@ -1,30 +1,61 @@
 package com.undoschool.coursesearch.service;
 
+import co.elastic.clients.elasticsearch.ElasticsearchAsyncClient;
+import co.elastic.clients.elasticsearch.ElasticsearchClient;
 import co.elastic.clients.elasticsearch._types.query_dsl.BoolQuery;
 import co.elastic.clients.elasticsearch._types.query_dsl.Query;
 import co.elastic.clients.elasticsearch._types.query_dsl.RangeQuery;
+import co.elastic.clients.elasticsearch._types.query_dsl.TextQueryType;
 import co.elastic.clients.elasticsearch._types.SortOrder;
+import co.elastic.clients.elasticsearch.core.SearchRequest;
+import co.elastic.clients.elasticsearch.core.SearchResponse;
+import co.elastic.clients.elasticsearch.core.search.Hit;
+import co.elastic.clients.elasticsearch.core.search.PhraseSuggestOption;
+import co.elastic.clients.elasticsearch.core.search.Suggestion;
 import co.elastic.clients.json.JsonData;
+import co.elastic.clients.json.JsonpMapper;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.undoschool.coursesearch.config.SearchProperties;
 import com.undoschool.coursesearch.document.CourseDocument;
 import com.undoschool.coursesearch.dto.CourseResponseDto;
 import com.undoschool.coursesearch.dto.CourseSearchRequestDto;
 import com.undoschool.coursesearch.dto.CourseSearchResponseDto;
+import jakarta.json.stream.JsonGenerator;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.data.domain.PageRequest;
-import org.springframework.data.domain.Pageable;
+import org.apache.http.HttpEntity;
+import org.apache.http.entity.ByteArrayEntity;
+import org.apache.http.entity.ContentType;
+import org.apache.http.util.EntityUtils;
+import org.elasticsearch.client.Cancellable;
+import org.elasticsearch.client.Request;
+import org.elasticsearch.client.Response;
+import org.elasticsearch.client.ResponseListener;
+import org.elasticsearch.client.RestClient;
+import org.springframework.dao.QueryTimeoutException;
 import org.springframework.data.elasticsearch.client.elc.NativeQuery;
 import org.springframework.data.elasticsearch.core.ElasticsearchOperations;
-import org.springframework.data.elasticsearch.core.SearchHit;
 import org.springframework.data.elasticsearch.core.SearchHits;
 import org.springframework.data.elasticsearch.core.suggest.Completion;
 import org.springframework.stereotype.Service;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.StringWriter;
+import java.io.UncheckedIOException;
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Function;
+import java.util.function.ToLongFunction;
 import java.util.stream.Collectors;
 
 /**
@@ -36,46 +67,87 @@ import java.util.stream.Collectors;
 public class CourseSearchService {
 
     private final ElasticsearchOperations elasticsearchOperations;
+    private final ElasticsearchClient elasticsearchClient;
+    private final ElasticsearchAsyncClient elasticsearchAsyncClient;
+    private final HedgedSearchExecutor hedgedSearchExecutor;
+    private final SearchProperties searchProperties;
+    private final ObjectMapper objectMapper;
+    private final RestClient restClient;
+    private final CourseSearchResponseWriter responseWriter;
+    private final CourseIndexService courseIndexService;
 
     /**
-     * Search courses with filters, pagination, and sorting
+     * Search courses with filters, pagination, and sorting. The search runs within the configured
+     * latency budget and may return partial results when shards time out or fail. Text is matched
+     * exactly (the last term as a prefix); only when that finds too few courses is it retried once
+     * with Elasticsearch's spelling suggestion, which is reported as didYouMean.
      */
     public CourseSearchResponseDto searchCourses(CourseSearchRequestDto request) {
-        // Build the query
-        Query query = buildSearchQuery(request);
+        int page = pageOf(request);
+        int size = sizeOf(request);
+        boolean allowPartial = allowPartialOf(request);
+        String routing = courseIndexService.searchRouting(request.getCategory());
+        long deadline = hedgedSearchExecutor.deadline();
         
-        // Create pageable
-        Pageable pageable = PageRequest.of(
-            request.getPage() != null ? request.getPage() : 0,
-            request.getSize() != null ? request.getSize() : 10
-        );
-        
-        // Build native query with sorting
-        NativeQuery.NativeQueryBuilder queryBuilder = NativeQuery.builder()
-            .withQuery(query)
-            .withPageable(pageable);
-        
-        // Add sorting
-        addSorting(queryBuilder, request.getSort());
+        // Execute search, hedging to another shard copy if the first attempt is slow
+        SpellCorrected<SearchResponse<ObjectNode>> result = searchWithSpellCorrection(request.getQ(), routing, deadline, text -> {
+            Query query = buildSearchQuery(request, text);
+            return hedgedSearchExecutor.execute(preference -> elasticsearchAsyncClient.search(
+                buildSearchRequest(query, request.getSort(), page, size, allowPartial, routing, preference),
+                ObjectNode.class
+            ), deadline);
+        }, this::totalHits);
+        SearchResponse<ObjectNode> response = result.response();
         
-        // Execute search
-        SearchHits<CourseDocument> searchHits = elasticsearchOperations.search(
-            queryBuilder.build(), CourseDocument.class
-        );
+        boolean partial = response.timedOut() || response.shards().failed().intValue() > 0;
+        if (partial) {
+            log.warn("Search returned partial results (timedOut={}, failedShards={})",
+                response.timedOut(), response.shards().failed());
+        }
         
         // Convert results
-        List<CourseResponseDto> courses = searchHits.getSearchHits().stream()
+        List<CourseResponseDto> courses = response.hits().hits().stream()
             .map(this::convertToResponseDto)
             .collect(Collectors.toList());
         
         return CourseSearchResponseDto.builder()
-            .total(searchHits.getTotalHits())
-            .page(request.getPage() != null ? request.getPage() : 0)
-            .size(request.getSize() != null ? request.getSize() : 10)
+            .total(totalHits(response))
+            .page(page)
+            .size(size)
+            .partial(partial)
+            .didYouMean(result.didYouMean())
             .courses(courses)
             .build();
     }
 
+    /**
+     * Same search as {@link #searchCourses}, but the buffered Elasticsearch response body is copied
+     * token by token to the output stream in the {@link CourseSearchResponseDto} format without
+     * building documents or DTOs. Returns the total number of matching courses.
+     */
+    public long streamSearchCourses(CourseSearchRequestDto request, OutputStream out) throws IOException {
+        int page = pageOf(request);
+        int size = sizeOf(request);
+        boolean allowPartial = allowPartialOf(request);
+        String routing = courseIndexService.searchRouting(request.getCategory());
+        long deadline = hedgedSearchExecutor.deadline();
+        
+        SpellCorrected<HttpEntity> result = searchWithSpellCorrection(request.getQ(), routing, deadline, text -> {
+            Query query = buildSearchQuery(request, text);
+            Response response = hedgedSearchExecutor.execute(preference ->
+                executeRawSearch(buildSearchRequest(query, request.getSort(), page, size, allowPartial, routing, preference),
+                    allowPartial, routing, preference),
+                deadline
+            );
+            // Spelling correction reads the total before the body is written, so only then keep it re-readable
+            return mayCorrect(text) ? inMemory(response.getEntity()) : response.getEntity();
+        }, this::bufferedTotalHits);
+        
+        try (InputStream body = result.response().getContent()) {
+            return responseWriter.write(body, page, size, result.didYouMean(), out);
+        }
+    }
+
     /**
      * Get autocomplete suggestions for course titles
      */
@@ -106,16 +178,145 @@ public class CourseSearchService {
             .collect(Collectors.toList());
     }
 
-    private Query buildSearchQuery(CourseSearchRequestDto request) {
+    /**
+     * Run the search for the given text. If it finds fewer courses than configured, ask the phrase
+     * suggester for a spelling correction and retry once with it, keeping whichever finds more.
+     * All three steps share the deadline; correction is skipped once it has passed.
+     */
+    private <T> SpellCorrected<T> searchWithSpellCorrection(String text, String routing, long deadline,
+                                                            Function<String, T> search, ToLongFunction<T> totalOf) {
+        T response = search.apply(text);
+        if (!mayCorrect(text)) {
+            return new SpellCorrected<>(response, null);
+        }
+        
+        long total = totalOf.applyAsLong(response);
+        if (total >= searchProperties.getSpellCorrection().getMinHits()) {
+            return new SpellCorrected<>(response, null);
+        }
+        
+        String correction;
+        T corrected;
+        try {
+            correction = suggestCorrection(text.trim(), routing, deadline);
+            if (correction == null) {
+                return new SpellCorrected<>(response, null);
+            }
+            corrected = search.apply(correction);
+        } catch (QueryTimeoutException e) {
+            // The uncorrected results are still worth returning
+            log.debug("Latency budget spent, skipping spelling correction for '{}'", text);
+            return new SpellCorrected<>(response, null);
+        } catch (RuntimeException e) {
+            // Correction is best effort, so a failed suggest call or retry does not fail the search
+            log.warn("Spelling correction failed for '{}'", text, e);
+            return new SpellCorrected<>(response, null);
+        }
+        
+        if (totalOf.applyAsLong(corrected) > total) {
+            log.debug("Corrected query '{}' to '{}'", text, correction);
+            return new SpellCorrected<>(corrected, correction);
+        }
+        return new SpellCorrected<>(response, null);
+    }
+    
+    /**
+     * Best phrase suggestion for the text over course titles and descriptions, or null if the
+     * suggester has nothing better than the text itself
+     */
+    private String suggestCorrection(String text, String routing, long deadline) {
+        SearchResponse<ObjectNode> response = hedgedSearchExecutor.execute(preference ->
+            executeSuggest(text, routing, preference), deadline);
+        
+        String best = null;
+        double bestScore = Double.NEGATIVE_INFINITY;
+        for (List<Suggestion<ObjectNode>> suggestions : response.suggest().values()) {
+            for (Suggestion<ObjectNode> suggestion : suggestions) {
+                if (!suggestion.isPhrase()) {
+                    continue;
+                }
+                for (PhraseSuggestOption option : suggestion.phrase().options()) {
+                    if (option.score() > bestScore && !option.text().equalsIgnoreCase(text)) {
+                        best = option.text();
+                        bestScore = option.score();
+                    }
+                }
+            }
+        }
+        return best;
+    }
+    
+    private CompletableFuture<SearchResponse<ObjectNode>> executeSuggest(String text, String routing, String preference) {
+        SearchProperties.SpellCorrection spellCorrection = searchProperties.getSpellCorrection();
+        return elasticsearchAsyncClient.search(s -> s
+            .index(coursesIndexName())
+            .size(0)
+            .timeout(searchProperties.getTimeout().toMillis() + "ms")
+            .routing(routing)
+            .preference(preference)
+            .suggest(sg -> sg
+                .text(text)
+                .suggesters("title", fs -> fs.phrase(p -> p
+                    .field("title")
+                    .size(1)
+                    .maxErrors(spellCorrection.getMaxErrors())
+                ))
+                .suggesters("description", fs -> fs.phrase(p -> p
+                    .field("description")
+                    .size(1)
+                    .maxErrors(spellCorrection.getMaxErrors())
+                ))
+            ),
+            ObjectNode.class
+        );
+    }
+    
+    private long totalHits(SearchResponse<ObjectNode> response) {
+        return response.hits().total() != null ? response.hits().total().value() : response.hits().hits().size();
+    }
+    
+    private long bufferedTotalHits(HttpEntity body) {
+        try (InputStream content = body.getContent()) {
+            return responseWriter.readTotal(content);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Unreadable search response", e);
+        }
+    }
+    
+    /**
+     * Replace the body with a byte array entity, which can be read again for the total and then for
+     * writing. The body is copied out of the client's buffer once.
+     */
+    private static HttpEntity inMemory(HttpEntity entity) {
+        try {
+            return new ByteArrayEntity(EntityUtils.toByteArray(entity), ContentType.APPLICATION_JSON);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Unreadable search response", e);
+        }
+    }
+    
+    /**
+     * Whether a search for the text may be followed by spelling correction
+     */
+    private boolean mayCorrect(String text) {
+        return searchProperties.getSpellCorrection().isEnabled() && hasText(text);
+    }
+    
+    private static boolean hasText(String text) {
+        return text != null && !text.trim().isEmpty();
+    }
+
+    private Query buildSearchQuery(CourseSearchRequestDto request, String text) {
         BoolQuery.Builder boolQuery = new BoolQuery.Builder();
         
-        // Full-text search on title and description
-        if (request.getQ() != null && !request.getQ().trim().isEmpty()) {
+        // Full-text search on title and description: exact terms, with the last term as a prefix.
+        // Misspellings are handled by searchWithSpellCorrection rather than fuzzy expansion on every query.
+        if (hasText(text)) {
             Query textQuery = Query.of(q -> q
                 .multiMatch(m -> m
-                    .query(request.getQ())
+                    .query(text)
                     .fields("title^2", "description")
-                    .fuzziness("AUTO") // Enable fuzzy matching
+                    .type(TextQueryType.BoolPrefix)
                 )
             );
             boolQuery.must(textQuery);
@@ -210,24 +411,109 @@ public class CourseSearchService {
         boolQuery.filter(dateQuery);
     }
     
-    private void addSorting(NativeQuery.NativeQueryBuilder queryBuilder, String sort) {
+    private SearchRequest buildSearchRequest(Query query, String sort, int page, int size,
+                                             boolean allowPartial, String routing, String preference) {
+        SearchRequest.Builder searchBuilder = new SearchRequest.Builder()
+            .index(coursesIndexName())
+            .query(query)
+            .from(page * size)
+            .size(size)
+            .trackTotalHits(t -> t.enabled(true))
+            .timeout(searchProperties.getTimeout().toMillis() + "ms")
+            .allowPartialSearchResults(allowPartial)
+            .routing(routing)
+            .preference(preference)
+            .source(src -> src.filter(f -> f.includes(CourseSearchResponseWriter.COURSE_FIELDS)));
+        
+        // Add sorting
+        addSorting(searchBuilder, sort);
+        
+        return searchBuilder.build();
+    }
+    
+    /**
+     * Send the search through the low-level client so the response body can be read as raw JSON.
+     * The client still reads the whole body into memory before completing the future, and
+     * cancelling the future aborts the request. URL parameters are not part of the serialized
+     * request body, so they are added here.
+     */
+    private CompletableFuture<Response> executeRawSearch(SearchRequest searchRequest, boolean allowPartial, String routing,
+                                      String preference) {
+        Request request = new Request("POST", "/" + coursesIndexName() + "/_search");
+        if (routing != null) {
+            // Only the shard holding this category is searched
+            request.addParameter("routing", routing);
+        }
+        request.addParameter("preference", preference);
+        request.addParameter("allow_partial_search_results", String.valueOf(allowPartial));
+        request.addParameter("filter_path", CourseSearchResponseWriter.FILTER_PATH);
+        request.setJsonEntity(toJson(searchRequest));
+        
+        CompletableFuture<Response> response = new CompletableFuture<>();
+        Cancellable cancellable = restClient.performRequestAsync(request, new ResponseListener() {
+            @Override
+            public void onSuccess(Response result) {
+                response.complete(result);
+            }
+            
+            @Override
+            public void onFailure(Exception e) {
+                response.completeExceptionally(e);
+            }
+        });
+        response.whenComplete((result, error) -> {
+            if (error instanceof CancellationException) {
+                cancellable.cancel();
+            }
+        });
+        return response;
+    }
+    
+    private String toJson(SearchRequest searchRequest) {
+        JsonpMapper mapper = elasticsearchClient._jsonpMapper();
+        StringWriter writer = new StringWriter();
+        try (JsonGenerator generator = mapper.jsonProvider().createGenerator(writer)) {
+            searchRequest.serialize(generator, mapper);
+        }
+        return writer.toString();
+    }
+    
+    private int pageOf(CourseSearchRequestDto request) {
+        return request.getPage() != null ? request.getPage() : 0;
+    }
+    
+    private int sizeOf(CourseSearchRequestDto request) {
+        return request.getSize() != null ? request.getSize() : 10;
+    }
+    
+    private boolean allowPartialOf(CourseSearchRequestDto request) {
+        return request.getAllowPartial() != null
+            ? request.getAllowPartial()
+            : searchProperties.isAllowPartialResults();
+    }
+    
+    private String coursesIndexName() {
+        return elasticsearchOperations.getIndexCoordinatesFor(CourseDocument.class).getIndexName();
+    }
+    
+    private void addSorting(SearchRequest.Builder queryBuilder, String sort) {
         if (sort == null || sort.equals("upcoming")) {
             // Default sort: ascending by nextSessionDate
-            queryBuilder.withSort(s -> s
+            queryBuilder.sort(s -> s
                 .field(f -> f
                     .field("nextSessionDate")
                     .order(SortOrder.Asc)
                 )
             );
         } else if (sort.equals("priceAsc")) {
-            queryBuilder.withSort(s -> s
+            queryBuilder.sort(s -> s
                 .field(f -> f
                     .field("price")
                     .order(SortOrder.Asc)
                 )
             );
         } else if (sort.equals("priceDesc")) {
-            queryBuilder.withSort(s -> s
+            queryBuilder.sort(s -> s
                 .field(f -> f
                     .field("price")
                     .order(SortOrder.Desc)
@@ -236,14 +522,33 @@ public class CourseSearchService {
         }
     }
     
-    private CourseResponseDto convertToResponseDto(SearchHit<CourseDocument> hit) {
-        CourseDocument course = hit.getContent();
+    /**
+     * A search response together with the corrected text it was run with, if any
+     */
+    private record SpellCorrected<T>(T response, String didYouMean) {
+    }
+    
+    private CourseResponseDto convertToResponseDto(Hit<ObjectNode> hit) {
+        return toResponseDto(hit.id(), hit.source(), objectMapper);
+    }
+    
+    /**
+     * Response DTO for a hit's id and fetched _source; fields missing from the source, including
+     * the whole source, stay null
+     */
+    static CourseResponseDto toResponseDto(String id, ObjectNode source, ObjectMapper objectMapper) {
+        CourseDocument course;
+        try {
+            course = source != null ? objectMapper.treeToValue(source, CourseDocument.class) : new CourseDocument();
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Unreadable course document " + id, e);
+        }
         return CourseResponseDto.builder()
-            .id(course.getId())
+            .id(id) // not part of the fetched _source
             .title(course.getTitle())
             .description(course.getDescription())
             .category(course.getCategory())
-            .type(course.getType().toString())
+            .type(Objects.toString(course.getType(), null))
             .gradeRange(course.getGradeRange())
             .minAge(course.getMinAge())
             .maxAge(course.getMaxAge())
@@ -7,6 +7,8 @@ import com.undoschool.coursesearch.repository.CourseRepository;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.boot.CommandLineRunner;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
 import org.springframework.core.io.ClassPathResource;
 import org.springframework.data.elasticsearch.core.suggest.Completion;
 import org.springframework.stereotype.Service;
@@ -22,19 +24,23 @@ import java.util.stream.Collectors;
 @Slf4j
 @Service
 @RequiredArgsConstructor
+@Order(Ordered.HIGHEST_PRECEDENCE)
 public class DataLoaderService implements CommandLineRunner {
 
     private final CourseRepository courseRepository;
+    private final CourseIndexService courseIndexService;
     private final ObjectMapper objectMapper;
 
     @Override
     public void run(String... args) throws Exception {
-        if (courseRepository.count() == 0) {
+        courseIndexService.ensureIndex();
+        
+        long existing = courseRepository.count();
+        if (existing == 0) {
             log.info("Loading sample course data...");
             loadSampleData();
-            log.info("Sample course data loaded successfully. Total courses: {}", courseRepository.count());
         } else {
-            log.info("Course data already exists. Skipping data loading. Total courses: {}", courseRepository.count());
+            log.info("Course data already exists. Skipping data loading. Total courses: {}", existing);
         }
     }
 
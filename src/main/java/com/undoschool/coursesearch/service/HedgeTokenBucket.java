@@ -0,0 +1,30 @@
+package com.undoschool.coursesearch.service;
+
+/**
+ * Caps the share of searches that send a hedged attempt: every search deposits a fraction of a
+ * token and every hedge spends a whole one, so a slow cluster is not hit with twice the load
+ */
+class HedgeTokenBucket {
+
+    private final double ratio;
+    private final double capacity;
+    private double tokens;
+
+    HedgeTokenBucket(double ratio, int burst) {
+        this.ratio = ratio;
+        this.capacity = Math.max(1, burst);
+        this.tokens = capacity;
+    }
+
+    synchronized void deposit() {
+        tokens = Math.min(capacity, tokens + ratio);
+    }
+
+    synchronized boolean tryAcquire() {
+        if (tokens < 1) {
+            return false;
+        }
+        tokens--;
+        return true;
+    }
+}
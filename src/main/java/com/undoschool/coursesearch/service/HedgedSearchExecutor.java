@@ -0,0 +1,238 @@
+package com.undoschool.coursesearch.service;
+
+import co.elastic.clients.elasticsearch._types.ElasticsearchException;
+import com.undoschool.coursesearch.config.SearchProperties;
+import lombok.extern.slf4j.Slf4j;
+import org.elasticsearch.client.ResponseException;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.dao.InvalidDataAccessApiUsageException;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+
+/**
+ * Runs a search within the configured latency budget, sending a hedged attempt to another
+ * shard copy when the primary attempt runs longer than the recent latency percentile.
+ * Attempts are asynchronous requests whose futures abort the HTTP request when cancelled, so
+ * the losing attempt releases its connection instead of running to completion.
+ */
+@Slf4j
+@Component
+public class HedgedSearchExecutor {
+
+    private final SearchProperties properties;
+    private final SearchLatencyTracker latencyTracker;
+    private final HedgeTokenBucket hedgeTokens;
+
+    public HedgedSearchExecutor(SearchProperties properties) {
+        this(properties, new SearchLatencyTracker(properties.getHedge().getWindow()));
+    }
+
+    HedgedSearchExecutor(SearchProperties properties, SearchLatencyTracker latencyTracker) {
+        this.properties = properties;
+        this.latencyTracker = latencyTracker;
+        this.hedgeTokens = new HedgeTokenBucket(properties.getHedge().getMaxRatio(), properties.getHedge().getBurst());
+    }
+
+    /**
+     * Deadline, in {@link System#nanoTime()} terms, for a search that starts now
+     */
+    public long deadline() {
+        return System.nanoTime() + properties.getBudget().toNanos();
+    }
+
+    /**
+     * Execute the search attempt within a fresh latency budget
+     */
+    public <T> T execute(Function<String, CompletableFuture<T>> attempt) {
+        return execute(attempt, deadline());
+    }
+
+    /**
+     * Start the search attempt, which receives the shard preference it should use, and return the
+     * response of whichever attempt completes first before the deadline
+     */
+    public <T> T execute(Function<String, CompletableFuture<T>> attempt, long deadlineNanos) {
+        if (System.nanoTime() - deadlineNanos >= 0) {
+            throw new QueryTimeoutException("Search exceeded its latency budget");
+        }
+
+        // A per-request preference spreads primaries over all shard copies; the hedge derives a
+        // different one so it is likely to land on another copy
+        String preference = Long.toHexString(ThreadLocalRandom.current().nextLong());
+        hedgeTokens.deposit();
+
+        Attempt<T> primary = new Attempt<>(attempt, preference);
+        try {
+            return awaitWithHedge(primary, attempt, preference, deadlineNanos);
+        } finally {
+            // A primary still running when it loses or times out is recorded with its elapsed time
+            // as a lower bound, so slow searches stay in the window
+            if (!primary.failed()) {
+                latencyTracker.record(primary.elapsedNanos());
+            }
+            primary.cancel();
+        }
+    }
+
+    /**
+     * Forget the recorded attempt latencies, e.g. the cold-start samples taken during warmup
+     */
+    public void resetLatencies() {
+        latencyTracker.reset();
+    }
+
+    private <T> T awaitWithHedge(Attempt<T> primary, Function<String, CompletableFuture<T>> attempt,
+                                 String preference, long deadlineNanos) {
+        if (!properties.getHedge().isEnabled()) {
+            return await(primary.future, deadlineNanos);
+        }
+
+        long hedgeAt = primary.startNanos + hedgeDelayNanos();
+        try {
+            return primary.future.get(Math.min(hedgeAt, deadlineNanos) - System.nanoTime(), TimeUnit.NANOSECONDS);
+        } catch (TimeoutException e) {
+            if (System.nanoTime() - deadlineNanos >= 0) {
+                throw new QueryTimeoutException("Search exceeded its latency budget");
+            }
+            log.debug("Primary search attempt is slower than the hedge delay");
+        } catch (ExecutionException e) {
+            if (!isRetryable(e.getCause())) {
+                throw propagate(e.getCause());
+            }
+            log.warn("Primary search attempt failed with a retryable error", e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new QueryTimeoutException("Interrupted while waiting for search", e);
+        }
+
+        if (!hedgeTokens.tryAcquire()) {
+            log.debug("Hedge budget exhausted, waiting for the primary search attempt");
+            return await(primary.future, deadlineNanos);
+        }
+
+        Attempt<T> hedged = new Attempt<>(attempt, preference + "-hedge");
+        try {
+            return await(firstSuccessful(primary.future, hedged.future), deadlineNanos);
+        } finally {
+            hedged.cancel();
+        }
+    }
+
+    private long hedgeDelayNanos() {
+        SearchProperties.Hedge hedge = properties.getHedge();
+        if (latencyTracker.sampleCount() < hedge.getMinSamples()) {
+            return hedge.getInitialDelay().toNanos();
+        }
+        return Math.max(latencyTracker.percentile(hedge.getPercentile()), hedge.getMinDelay().toNanos());
+    }
+
+    /**
+     * Only transport failures, overload and server errors are worth another attempt; a bad
+     * request fails the same way on every shard copy
+     */
+    static boolean isRetryable(Throwable error) {
+        Throwable cause = unwrap(error);
+        if (cause instanceof ResponseException responseException) {
+            return isRetryableStatus(responseException.getResponse().getStatusLine().getStatusCode());
+        }
+        if (cause instanceof ElasticsearchException elasticsearchException) {
+            return isRetryableStatus(elasticsearchException.status());
+        }
+        return cause instanceof IOException;
+    }
+
+    private static boolean isRetryableStatus(int status) {
+        return status == 429 || status >= 500;
+    }
+
+    private static Throwable unwrap(Throwable error) {
+        Throwable cause = error;
+        while ((cause instanceof CompletionException || cause instanceof UncheckedIOException)
+                && cause.getCause() != null) {
+            cause = cause.getCause();
+        }
+        return cause;
+    }
+
+    private static <T> T await(CompletableFuture<T> future, long deadlineNanos) {
+        try {
+            return future.get(deadlineNanos - System.nanoTime(), TimeUnit.NANOSECONDS);
+        } catch (TimeoutException e) {
+            throw new QueryTimeoutException("Search exceeded its latency budget");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new QueryTimeoutException("Interrupted while waiting for search", e);
+        } catch (ExecutionException e) {
+            throw propagate(e.getCause());
+        }
+    }
+
+    private static RuntimeException propagate(Throwable error) {
+        Throwable cause = unwrap(error);
+        if (cause instanceof RuntimeException runtimeException) {
+            return runtimeException;
+        }
+        if (isRetryable(cause)) {
+            return new DataAccessResourceFailureException("Search failed", cause);
+        }
+        return new InvalidDataAccessApiUsageException("Search was rejected", cause);
+    }
+
+    /**
+     * Completes with the first attempt that succeeds, or fails once both attempts have failed
+     */
+    private static <T> CompletableFuture<T> firstSuccessful(CompletableFuture<T> first, CompletableFuture<T> second) {
+        CompletableFuture<T> result = new CompletableFuture<>();
+        AtomicInteger failures = new AtomicInteger();
+        BiConsumer<T, Throwable> handler = (value, error) -> {
+            if (error == null) {
+                result.complete(value);
+            } else if (failures.incrementAndGet() == 2) {
+                result.completeExceptionally(unwrap(error));
+            }
+        };
+        first.whenComplete(handler);
+        second.whenComplete(handler);
+        return result;
+    }
+
+    /**
+     * A started search attempt. Cancelling its future aborts the underlying HTTP request.
+     */
+    private static final class Attempt<T> {
+        private final long startNanos = System.nanoTime();
+        private final AtomicLong finishedNanos = new AtomicLong();
+        private final CompletableFuture<T> future;
+
+        private Attempt(Function<String, CompletableFuture<T>> attempt, String preference) {
+            this.future = attempt.apply(preference);
+            future.whenComplete((response, error) -> finishedNanos.compareAndSet(0, System.nanoTime()));
+        }
+
+        private long elapsedNanos() {
+            long finished = finishedNanos.get();
+            return (finished != 0 ? finished : System.nanoTime()) - startNanos;
+        }
+
+        private boolean failed() {
+            return future.isCompletedExceptionally() && !future.isCancelled();
+        }
+
+        private void cancel() {
+            future.cancel(true);
+        }
+    }
+}
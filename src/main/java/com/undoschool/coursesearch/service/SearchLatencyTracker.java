@@ -0,0 +1,50 @@
+package com.undoschool.coursesearch.service;
+
+import java.util.Arrays;
+
+/**
+ * Rolling window of search attempt latencies used to derive the hedge delay
+ */
+class SearchLatencyTracker {
+
+    private final long[] samples;
+    private int next;
+    private int count;
+
+    SearchLatencyTracker(int window) {
+        this.samples = new long[Math.max(1, window)];
+    }
+
+    synchronized void record(long latencyNanos) {
+        samples[next] = latencyNanos;
+        next = (next + 1) % samples.length;
+        if (count < samples.length) {
+            count++;
+        }
+    }
+
+    synchronized void reset() {
+        next = 0;
+        count = 0;
+    }
+
+    synchronized int sampleCount() {
+        return count;
+    }
+
+    /**
+     * Latency at the given percentile (0-100) of the recorded samples, or -1 if none were recorded
+     */
+    long percentile(double percentile) {
+        long[] snapshot;
+        synchronized (this) {
+            if (count == 0) {
+                return -1;
+            }
+            snapshot = Arrays.copyOf(samples, count);
+        }
+        Arrays.sort(snapshot);
+        int index = (int) Math.ceil(percentile / 100.0 * snapshot.length) - 1;
+        return snapshot[Math.min(Math.max(index, 0), snapshot.length - 1)];
+    }
+}
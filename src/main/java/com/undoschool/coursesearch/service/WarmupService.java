@@ -0,0 +1,151 @@
+package com.undoschool.coursesearch.service;
+
+import co.elastic.clients.elasticsearch.ElasticsearchClient;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.undoschool.coursesearch.config.SearchProperties;
+import com.undoschool.coursesearch.config.WarmupProperties;
+import com.undoschool.coursesearch.dto.CourseSearchRequestDto;
+import com.undoschool.coursesearch.dto.CourseSearchResponseDto;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.CommandLineRunner;
+import org.springframework.boot.SpringApplication;
+import org.springframework.context.ApplicationContext;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.stream.IntStream;
+
+/**
+ * Warms the client connection pool, Elasticsearch caches, JIT and Jackson serializers before the
+ * application reports itself ready to accept traffic. Spring Boot keeps readiness at
+ * REFUSING_TRAFFIC until all runners have returned, so this runner is ordered last.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+@Order(Ordered.LOWEST_PRECEDENCE)
+public class WarmupService implements CommandLineRunner {
+
+    private final WarmupProperties warmupProperties;
+    private final SearchProperties searchProperties;
+    private final ElasticsearchClient elasticsearchClient;
+    private final CourseSearchService courseSearchService;
+    private final HedgedSearchExecutor hedgedSearchExecutor;
+    private final ObjectMapper objectMapper;
+    private final MeterRegistry meterRegistry;
+    private final ApplicationContext applicationContext;
+
+    @Override
+    public void run(String... args) {
+        if (!warmupProperties.isEnabled()) {
+            log.info("Warmup disabled");
+            return;
+        }
+
+        log.info("Starting warmup: {} queries, {} suggest prefixes, {} iterations",
+            warmupProperties.getQueries().size(), warmupProperties.getSuggestPrefixes().size(),
+            warmupProperties.getIterations());
+
+        long start = System.nanoTime();
+        timed("connections", this::openConnections);
+        timed("search", this::replaySearches);
+        timed("suggest", this::replaySuggestions);
+        Duration total = Duration.ofNanos(System.nanoTime() - start);
+        meterRegistry.timer("course.search.warmup", "phase", "total").record(total);
+        log.info("Warmup completed in {} ms", total.toMillis());
+
+        // Cold-start latencies would inflate the hedge delay for the first live requests
+        hedgedSearchExecutor.resetLatencies();
+
+        if (warmupProperties.isExitAfterWarmup()) {
+            log.info("Exiting after warmup");
+            System.exit(SpringApplication.exit(applicationContext, () -> 0));
+        }
+    }
+
+    private void timed(String phase, Runnable task) {
+        long start = System.nanoTime();
+        try {
+            task.run();
+        } catch (RuntimeException e) {
+            // A failed warmup only costs latency, so it must not keep the application from starting
+            log.warn("Warmup phase '{}' failed", phase, e);
+        }
+        Duration elapsed = Duration.ofNanos(System.nanoTime() - start);
+        meterRegistry.timer("course.search.warmup", "phase", phase).record(elapsed);
+        log.info("Warmup phase '{}' took {} ms", phase, elapsed.toMillis());
+    }
+
+    /**
+     * Ping concurrently so the client opens several pooled connections instead of one
+     */
+    private void openConnections() {
+        int connections = Math.max(1, warmupProperties.getConnections());
+        ExecutorService executor = Executors.newFixedThreadPool(connections);
+        try {
+            CompletableFuture.allOf(IntStream.range(0, connections)
+                .mapToObj(i -> CompletableFuture.runAsync(this::ping, executor))
+                .toArray(CompletableFuture[]::new)
+            ).join();
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    private void ping() {
+        try {
+            elasticsearchClient.ping();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Replay representative searches through the same response path the controller uses
+     */
+    private void replaySearches() {
+        for (int i = 0; i < warmupProperties.getIterations(); i++) {
+            for (CourseSearchRequestDto request : warmupProperties.getQueries()) {
+                if (searchProperties.isStreaming()) {
+                    streamSearch(request);
+                } else {
+                    roundTrip(courseSearchService.searchCourses(request));
+                }
+            }
+        }
+    }
+
+    private void replaySuggestions() {
+        for (int i = 0; i < warmupProperties.getIterations(); i++) {
+            for (String prefix : warmupProperties.getSuggestPrefixes()) {
+                courseSearchService.getSuggestions(prefix);
+            }
+        }
+    }
+
+    private void streamSearch(CourseSearchRequestDto request) {
+        try {
+            courseSearchService.streamSearchCourses(request, OutputStream.nullOutputStream());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private void roundTrip(CourseSearchResponseDto response) {
+        try {
+            objectMapper.readValue(objectMapper.writeValueAsBytes(response), CourseSearchResponseDto.class);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -0,0 +1,156 @@
+package com.undoschool.coursesearch.benchmark;
+
+import co.elastic.clients.elasticsearch.ElasticsearchClient;
+import co.elastic.clients.elasticsearch.core.BulkRequest;
+import co.elastic.clients.elasticsearch.core.SearchResponse;
+import co.elastic.clients.json.jackson.JacksonJsonpMapper;
+import co.elastic.clients.transport.rest_client.RestClientTransport;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import org.apache.http.HttpHost;
+import org.elasticsearch.client.RestClient;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares category-filtered searches on the current layout (documents routed by id) with
+ * category routing. Needs a running Elasticsearch, by default the one from docker-compose
+ * (override with -Dbenchmark.elasticsearch=http://host:port). The {@code shardsQueried} and
+ * {@code searches} counters show the fan-out per search for each layout.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CategoryRoutingBenchmark {
+
+    private static final String DEFAULT_INDEX = "courses-bench-default";
+    private static final String ROUTED_INDEX = "courses-bench-routed";
+    private static final List<String> CATEGORIES = List.of("Science", "Sports", "Art", "Technology", "Math");
+
+    @Param({"5"})
+    private int shards;
+
+    /**
+     * Number of times the sample catalog is indexed, to get a realistically sized index
+     */
+    @Param({"100"})
+    private int copies;
+
+    private RestClient restClient;
+    private ElasticsearchClient client;
+    private int next;
+
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class FanOut {
+        public long shardsQueried;
+        public long searches;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            shardsQueried = 0;
+            searches = 0;
+        }
+    }
+
+    @Setup
+    public void setUp() throws IOException {
+        restClient = RestClient.builder(HttpHost.create(System.getProperty("benchmark.elasticsearch", "http://localhost:9200")))
+            .build();
+        client = new ElasticsearchClient(new RestClientTransport(restClient, new JacksonJsonpMapper()));
+
+        List<Map<String, Object>> courses = sampleCourses();
+        createIndex(DEFAULT_INDEX, courses, false);
+        createIndex(ROUTED_INDEX, courses, true);
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        client.indices().delete(d -> d.index(DEFAULT_INDEX, ROUTED_INDEX));
+        restClient.close();
+    }
+
+    @Benchmark
+    public long defaultLayout(FanOut fanOut) throws IOException {
+        return search(DEFAULT_INDEX, nextCategory(), false, fanOut);
+    }
+
+    @Benchmark
+    public long categoryRouting(FanOut fanOut) throws IOException {
+        return search(ROUTED_INDEX, nextCategory(), true, fanOut);
+    }
+
+    private long search(String index, String category, boolean routed, FanOut fanOut) throws IOException {
+        SearchResponse<ObjectNode> response = client.search(s -> s
+                .index(index)
+                .routing(routed ? category : null)
+                .query(q -> q.bool(b -> b.filter(f -> f.term(t -> t.field("category").value(category)))))
+                .source(src -> src.fetch(false))
+                .size(10),
+            ObjectNode.class
+        );
+        fanOut.shardsQueried += response.shards().total().longValue();
+        fanOut.searches++;
+        return response.hits().total().value();
+    }
+
+    private String nextCategory() {
+        next = (next + 1) % CATEGORIES.size();
+        return CATEGORIES.get(next);
+    }
+
+    private void createIndex(String index, List<Map<String, Object>> courses, boolean routed) throws IOException {
+        if (client.indices().exists(e -> e.index(index)).value()) {
+            client.indices().delete(d -> d.index(index));
+        }
+        client.indices().create(c -> c
+            .index(index)
+            .settings(s -> s.numberOfShards(String.valueOf(shards)).numberOfReplicas("0"))
+            .mappings(m -> m.properties("category", p -> p.keyword(k -> k)))
+        );
+
+        for (int copy = 0; copy < copies; copy++) {
+            BulkRequest.Builder bulk = new BulkRequest.Builder();
+            for (Map<String, Object> course : courses) {
+                String id = course.get("id") + "-" + copy;
+                String category = (String) course.get("category");
+                bulk.operations(op -> op.index(i -> i
+                    .index(index)
+                    .id(id)
+                    .routing(routed ? category : null)
+                    .document(course)
+                ));
+            }
+            client.bulk(bulk.build());
+        }
+        client.indices().refresh(r -> r.index(index));
+    }
+
+    private static List<Map<String, Object>> sampleCourses() throws IOException {
+        try (InputStream inputStream = CategoryRoutingBenchmark.class.getResourceAsStream("/sample-courses.json")) {
+            return new ObjectMapper().readValue(inputStream, new TypeReference<List<Map<String, Object>>>() {});
+        }
+    }
+}
@@ -0,0 +1,163 @@
+package com.undoschool.coursesearch.benchmark;
+
+import co.elastic.clients.elasticsearch.core.SearchResponse;
+import co.elastic.clients.elasticsearch.core.search.Hit;
+import co.elastic.clients.json.JsonpDeserializer;
+import co.elastic.clients.json.JsonpMapper;
+import co.elastic.clients.json.jackson.JacksonJsonpMapper;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.undoschool.coursesearch.document.CourseDocument;
+import com.undoschool.coursesearch.dto.CourseResponseDto;
+import com.undoschool.coursesearch.dto.CourseSearchResponseDto;
+import com.undoschool.coursesearch.service.CourseSearchResponseWriter;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the DTO response mapping with copying hits from the response body to the output. Both
+ * start from a response body already in memory, as the low-level client buffers it either way.
+ * Run with {@code mvn -Pbenchmark test-compile exec:exec} and compare {@code gc.alloc.rate.norm}
+ * (bytes allocated per response) between the two benchmarks.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CourseSearchResponseBenchmark {
+
+    @Param({"10", "100", "500"})
+    private int hits;
+
+    private ObjectMapper objectMapper;
+    private JsonpMapper jsonpMapper;
+    private JsonpDeserializer<SearchResponse<ObjectNode>> searchResponseDeserializer;
+    private CourseSearchResponseWriter responseWriter;
+    private byte[] searchResponse;
+    private byte[] filteredSearchResponse;
+
+    @Setup
+    public void setUp() throws IOException {
+        objectMapper = JsonMapper.builder()
+            .addModule(new JavaTimeModule())
+            .disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES)
+            .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+            .build();
+        jsonpMapper = new JacksonJsonpMapper(objectMapper);
+        searchResponseDeserializer = SearchResponse.createSearchResponseDeserializer(JsonpDeserializer.of(ObjectNode.class));
+        responseWriter = new CourseSearchResponseWriter(objectMapper);
+        searchResponse = objectMapper.writeValueAsBytes(searchResponse(hits, false));
+        filteredSearchResponse = objectMapper.writeValueAsBytes(searchResponse(hits, true));
+    }
+
+    /**
+     * Baseline, as the client and the DTO path do it: response body to SearchResponse&lt;ObjectNode&gt;
+     * through the JsonpMapper, then each source to CourseDocument to CourseResponseDto
+     */
+    @Benchmark
+    public long dtoMapping() throws IOException {
+        SearchResponse<ObjectNode> response;
+        try (InputStream body = new ByteArrayInputStream(searchResponse)) {
+            response = searchResponseDeserializer.deserialize(jsonpMapper.jsonProvider().createParser(body), jsonpMapper);
+        }
+        List<CourseResponseDto> courses = new ArrayList<>();
+        for (Hit<ObjectNode> hit : response.hits().hits()) {
+            CourseDocument course = objectMapper.treeToValue(hit.source(), CourseDocument.class);
+            courses.add(CourseResponseDto.builder()
+                .id(hit.id())
+                .title(course.getTitle())
+                .description(course.getDescription())
+                .category(course.getCategory())
+                .type(course.getType().toString())
+                .gradeRange(course.getGradeRange())
+                .minAge(course.getMinAge())
+                .maxAge(course.getMaxAge())
+                .price(course.getPrice())
+                .nextSessionDate(course.getNextSessionDate())
+                .build());
+        }
+        CourseSearchResponseDto dto = CourseSearchResponseDto.builder()
+            .total(response.hits().total().value())
+            .page(0)
+            .size(hits)
+            .partial(response.timedOut() || response.shards().failed().intValue() > 0)
+            .courses(courses)
+            .build();
+        objectMapper.writeValue(OutputStream.nullOutputStream(), dto);
+        return dto.getTotal();
+    }
+
+    @Benchmark
+    public long streaming() throws IOException {
+        return responseWriter.write(new ByteArrayInputStream(filteredSearchResponse), 0, hits, null,
+            OutputStream.nullOutputStream());
+    }
+
+    /**
+     * A search response as Elasticsearch returns it, or trimmed by the writer's filter_path
+     */
+    private ObjectNode searchResponse(int count, boolean filtered) {
+        ObjectNode response = objectMapper.createObjectNode();
+        if (!filtered) {
+            response.put("took", 3);
+        }
+        response.put("timed_out", false);
+        ObjectNode shards = response.putObject("_shards");
+        if (!filtered) {
+            shards.put("total", 1).put("successful", 1).put("skipped", 0);
+        }
+        shards.put("failed", 0);
+        ObjectNode hitsNode = response.putObject("hits");
+        ObjectNode total = hitsNode.putObject("total").put("value", count);
+        if (!filtered) {
+            total.put("relation", "eq");
+            hitsNode.put("max_score", 1.0);
+        }
+        ArrayNode hitArray = hitsNode.putArray("hits");
+        for (int i = 0; i < count; i++) {
+            ObjectNode hit = hitArray.addObject();
+            if (!filtered) {
+                hit.put("_index", "courses");
+            }
+            hit.put("_id", String.valueOf(i));
+            if (!filtered) {
+                hit.put("_score", 1.0);
+            }
+            hit.putObject("_source")
+                .put("title", "Python Programming for Beginners " + i)
+                .put("description", "Start your coding journey with Python, covering variables, loops and functions")
+                .put("category", "Technology")
+                .put("type", "COURSE")
+                .put("gradeRange", "6th-12th")
+                .put("minAge", 11)
+                .put("maxAge", 18)
+                .put("price", 250.0)
+                .put("nextSessionDate", "2025-08-18T11:00:00");
+        }
+        return response;
+    }
+}
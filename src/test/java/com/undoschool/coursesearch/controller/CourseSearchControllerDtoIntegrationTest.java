@@ -0,0 +1,17 @@
+package com.undoschool.coursesearch.controller;
+
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureWebMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+/**
+ * Runs the controller tests against the DTO mapping instead of the streaming response writer
+ */
+@SpringBootTest(properties = {
+    "course-search.warmup.enabled=false",
+    "course-search.search.streaming=false"
+})
+@AutoConfigureWebMvc
+@Testcontainers
+public class CourseSearchControllerDtoIntegrationTest extends CourseSearchControllerIntegrationTest {
+}
@@ -18,10 +18,11 @@ import org.testcontainers.junit.jupiter.Testcontainers;
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
 
+import static org.hamcrest.Matchers.nullValue;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 
-@SpringBootTest
+@SpringBootTest(properties = "course-search.warmup.enabled=false")
 @AutoConfigureWebMvc
 @Testcontainers
 public class CourseSearchControllerIntegrationTest {
@@ -90,9 +91,29 @@ public class CourseSearchControllerIntegrationTest {
                 .param("q", "Java"))
                 .andExpect(status().isOk())
                 .andExpect(jsonPath("$.total").value(1))
+                .andExpect(jsonPath("$.courses[0].id").value("test1"))
                 .andExpect(jsonPath("$.courses[0].title").value("Java Programming"));
     }
 
+    @Test
+    void testSearchCoursesCorrectsMisspelledKeyword() throws Exception {
+        mockMvc.perform(get("/api/search")
+                .param("q", "Progamming"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.total").value(1))
+                .andExpect(jsonPath("$.didYouMean").value("programming"))
+                .andExpect(jsonPath("$.courses[0].title").value("Java Programming"));
+    }
+
+    @Test
+    void testSearchCoursesKeepsCorrectlySpelledKeyword() throws Exception {
+        mockMvc.perform(get("/api/search")
+                .param("q", "Java"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.total").value(1))
+                .andExpect(jsonPath("$.didYouMean").value(nullValue()));
+    }
+
     @Test
     void testSearchCoursesWithCategory() throws Exception {
         mockMvc.perform(get("/api/search")
@@ -122,6 +143,15 @@ public class CourseSearchControllerIntegrationTest {
                 .andExpect(jsonPath("$.courses.length()").value(1));
     }
 
+    @Test
+    void testSearchCoursesReportsCompleteResults() throws Exception {
+        mockMvc.perform(get("/api/search")
+                .param("allowPartial", "false"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.total").value(2))
+                .andExpect(jsonPath("$.partial").value(false));
+    }
+
     @Test
     void testGetSuggestions() throws Exception {
         mockMvc.perform(get("/api/search/suggest")
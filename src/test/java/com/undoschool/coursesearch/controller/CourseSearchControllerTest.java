@@ -0,0 +1,59 @@
+package com.undoschool.coursesearch.controller;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.undoschool.coursesearch.config.SearchProperties;
+import com.undoschool.coursesearch.service.CourseSearchService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import java.io.IOException;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+/**
+ * Error mapping of the search endpoint, without Elasticsearch
+ */
+class CourseSearchControllerTest {
+
+    private CourseSearchService courseSearchService;
+    private SearchProperties searchProperties;
+    private MockMvc mockMvc;
+
+    @BeforeEach
+    void setUp() {
+        courseSearchService = mock(CourseSearchService.class);
+        searchProperties = new SearchProperties();
+        mockMvc = MockMvcBuilders
+            .standaloneSetup(new CourseSearchController(courseSearchService, searchProperties, new ObjectMapper()))
+            .build();
+    }
+
+    @Test
+    void testSearchTimeoutReturnsGatewayTimeout() throws Exception {
+        when(courseSearchService.streamSearchCourses(any(), any()))
+            .thenThrow(new QueryTimeoutException("Search exceeded its latency budget"));
+
+        mockMvc.perform(get("/api/search").param("q", "java"))
+                .andExpect(status().isGatewayTimeout())
+                .andExpect(jsonPath("$.error").value("Search timed out"));
+    }
+
+    @Test
+    void testSearchResourceFailureReturnsServiceUnavailable() throws Exception {
+        searchProperties.setStreaming(false);
+        when(courseSearchService.searchCourses(any()))
+            .thenThrow(new DataAccessResourceFailureException("Search failed", new IOException("connection refused")));
+
+        mockMvc.perform(get("/api/search").param("q", "java"))
+                .andExpect(status().isServiceUnavailable())
+                .andExpect(jsonPath("$.error").value("Search is temporarily unavailable"));
+    }
+}
@@ -0,0 +1,167 @@
+package com.undoschool.coursesearch.controller;
+
+import co.elastic.clients.elasticsearch.ElasticsearchClient;
+import co.elastic.clients.elasticsearch.core.SearchResponse;
+import co.elastic.clients.elasticsearch.core.search.Hit;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.undoschool.coursesearch.document.CourseDocument;
+import com.undoschool.coursesearch.repository.CourseRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureWebMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.elasticsearch.core.ElasticsearchOperations;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.web.servlet.MockMvc;
+import org.testcontainers.elasticsearch.ElasticsearchContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.everyItem;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@SpringBootTest(properties = {
+    "course-search.warmup.enabled=false",
+    "course-search.index.route-by-category=true",
+    "course-search.index.shards=3",
+    "course-search.index.replicas=0"
+})
+@AutoConfigureWebMvc
+@Testcontainers
+public class CourseSearchRoutingIntegrationTest {
+
+    @Container
+    static ElasticsearchContainer elasticsearchContainer =
+        new ElasticsearchContainer("docker.elastic.co/elasticsearch/elasticsearch:8.11.0")
+            .withEnv("xpack.security.enabled", "false")
+            .withEnv("discovery.type", "single-node");
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private CourseRepository courseRepository;
+
+    @Autowired
+    private ElasticsearchOperations elasticsearchOperations;
+
+    @Autowired
+    private ElasticsearchClient elasticsearchClient;
+
+    @DynamicPropertySource
+    static void configureProperties(DynamicPropertyRegistry registry) {
+        registry.add("spring.elasticsearch.uris", elasticsearchContainer::getHttpHostAddress);
+    }
+
+    @BeforeEach
+    void setUp() {
+        courseRepository.deleteAll();
+
+        // Saved through the repository, which must apply the category routing as well
+        courseRepository.saveAll(List.of(
+            course("art1", "Art Workshop", "Art"),
+            course("art2", "Watercolor Painting", "Art"),
+            course("art3", "Clay Sculpture", "Art"),
+            course("tech1", "Java Programming", "Technology"),
+            course("tech2", "Python Programming", "Technology"),
+            course("sci1", "Chemistry Lab", "Science")
+        ));
+
+        elasticsearchOperations.indexOps(CourseDocument.class).refresh();
+    }
+
+    @Test
+    void testSearchCoursesWithRoutedCategory() throws Exception {
+        mockMvc.perform(get("/api/search")
+                .param("category", "Art"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.total").value(3))
+                .andExpect(jsonPath("$.courses[*].category", everyItem(equalTo("Art"))));
+
+        mockMvc.perform(get("/api/search")
+                .param("category", "Technology")
+                .param("q", "Programming"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.total").value(2));
+    }
+
+    @Test
+    void testSearchCoursesWithoutCategoryQueriesAllShards() throws Exception {
+        mockMvc.perform(get("/api/search"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.total").value(6));
+    }
+
+    @Test
+    void testRepositoryWritesAreRoutedByCategory() throws Exception {
+        SearchResponse<ObjectNode> response = elasticsearchClient.search(s -> s
+                .index("courses")
+                .routing("Art")
+                .query(q -> q.term(t -> t.field("category").value("Art"))),
+            ObjectNode.class
+        );
+
+        assertThat(response.shards().total().intValue()).isEqualTo(1);
+        assertThat(response.hits().hits())
+            .hasSize(3)
+            .extracting(Hit::routing)
+            .containsOnly("Art");
+    }
+
+    @Test
+    void testIdOnlyRepositoryCallsRequireRouting() {
+        // The document lives on the shard of its category, which an id alone does not name
+        assertThatThrownBy(() -> courseRepository.deleteById("art1"))
+            .hasStackTraceContaining("routing_missing_exception");
+        assertThatThrownBy(() -> courseRepository.findById("art1"))
+            .hasStackTraceContaining("routing_missing_exception");
+    }
+
+    @Test
+    void testCategoryChangeMovesCourseToNewShard() throws Exception {
+        courseRepository.save(course("art1", "Art Workshop", "Science"));
+        elasticsearchOperations.indexOps(CourseDocument.class).refresh();
+
+        SearchResponse<ObjectNode> response = elasticsearchClient.search(s -> s
+                .index("courses")
+                .query(q -> q.ids(i -> i.values("art1"))),
+            ObjectNode.class
+        );
+
+        assertThat(response.hits().hits())
+            .singleElement()
+            .satisfies(hit -> {
+                assertThat(hit.routing()).isEqualTo("Science");
+                assertThat(hit.source().get("category").asText()).isEqualTo("Science");
+            });
+        mockMvc.perform(get("/api/search")
+                .param("category", "Art"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.total").value(2));
+    }
+
+    private static CourseDocument course(String id, String title, String category) {
+        return CourseDocument.builder()
+            .id(id)
+            .title(title)
+            .description(title + " for curious students")
+            .category(category)
+            .type(CourseDocument.CourseType.COURSE)
+            .gradeRange("6th-12th")
+            .minAge(11)
+            .maxAge(18)
+            .price(new BigDecimal("100.00"))
+            .nextSessionDate(LocalDateTime.of(2025, 8, 15, 10, 0))
+            .build();
+    }
+}
@@ -0,0 +1,153 @@
+package com.undoschool.coursesearch.service;
+
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.undoschool.coursesearch.dto.CourseResponseDto;
+import com.undoschool.coursesearch.dto.CourseSearchResponseDto;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Checks that the streamed response is the same JSON the DTO path builds and writes for the same search response
+ */
+class CourseSearchResponseWriterTest {
+
+    private static final String JAVA_SOURCE = """
+        {"title":"Java Programming","description":"Learn Java programming from basics",\
+        "category":"Technology","type":"COURSE","gradeRange":"6th-12th","minAge":11,"maxAge":18,\
+        "price":250.0,"nextSessionDate":"2025-08-18T11:00:00","internalNotes":"not part of the response"}""";
+
+    private final ObjectMapper objectMapper = JsonMapper.builder()
+        .addModule(new JavaTimeModule())
+        .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+        .disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES) // as configured by Spring Boot
+        .build();
+
+    private final CourseSearchResponseWriter responseWriter = new CourseSearchResponseWriter(objectMapper);
+
+    @Test
+    void testWriteWithoutHits() throws IOException {
+        // filter_path drops hits.hits entirely when nothing matched
+        String searchResponse = """
+            {"timed_out":false,"_shards":{"failed":0},"hits":{"total":{"value":0}}}""";
+
+        CourseSearchResponseDto expected = assertSameJson(searchResponse, 0, 10, null);
+
+        assertThat(expected.getCourses()).isEmpty();
+    }
+
+    @Test
+    void testWriteCourseFields() throws IOException {
+        String searchResponse = """
+            {"timed_out":false,"_shards":{"failed":0},"hits":{"total":{"value":1},\
+            "hits":[{"_id":"test1","_source":%s}]}}""".formatted(JAVA_SOURCE);
+
+        CourseSearchResponseDto expected = assertSameJson(searchResponse, 0, 10, null);
+
+        assertThat(expected.getCourses()).singleElement().satisfies(course -> {
+            assertThat(course.getId()).isEqualTo("test1");
+            assertThat(course.getType()).isEqualTo("COURSE");
+            assertThat(course.getPrice()).isEqualByComparingTo("250.0");
+            assertThat(course.getNextSessionDate()).isEqualTo(LocalDateTime.of(2025, 8, 18, 11, 0));
+        });
+    }
+
+    @Test
+    void testWriteMissingSourceFieldsAsNull() throws IOException {
+        String searchResponse = """
+            {"timed_out":false,"_shards":{"failed":0},"hits":{"total":{"value":2},\
+            "hits":[{"_id":"test2","_source":{"title":"Art Workshop","price":75.5}},{"_id":"test3"}]}}""";
+
+        CourseSearchResponseDto expected = assertSameJson(searchResponse, 1, 2, null);
+
+        assertThat(expected.getCourses()).extracting(CourseResponseDto::getId).containsExactly("test2", "test3");
+        assertThat(expected.getCourses()).extracting(CourseResponseDto::getType).containsOnlyNulls();
+    }
+
+    @Test
+    void testWritePartialWhenTimedOut() throws IOException {
+        String searchResponse = """
+            {"timed_out":true,"_shards":{"failed":0},"hits":{"total":{"value":1},\
+            "hits":[{"_id":"test1","_source":%s}]}}""".formatted(JAVA_SOURCE);
+
+        assertThat(assertSameJson(searchResponse, 0, 10, null).isPartial()).isTrue();
+    }
+
+    @Test
+    void testWritePartialWhenShardsFailed() throws IOException {
+        String searchResponse = """
+            {"timed_out":false,"_shards":{"failed":1},"hits":{"total":{"value":0}}}""";
+
+        assertThat(assertSameJson(searchResponse, 0, 10, null).isPartial()).isTrue();
+    }
+
+    @Test
+    void testWriteDidYouMean() throws IOException {
+        String searchResponse = """
+            {"timed_out":false,"_shards":{"failed":0},"hits":{"total":{"value":1},\
+            "hits":[{"_id":"test1","_source":%s}]}}""".formatted(JAVA_SOURCE);
+
+        assertSameJson(searchResponse, 0, 10, "java programming");
+    }
+
+    @Test
+    void testReadTotal() throws IOException {
+        String searchResponse = """
+            {"timed_out":false,"_shards":{"failed":0},"hits":{"total":{"value":42},"hits":[]}}""";
+
+        assertThat(responseWriter.readTotal(stream(searchResponse))).isEqualTo(42);
+    }
+
+    /**
+     * Stream the search response and compare it with the DTO the non-streaming path builds from the
+     * same response, which is returned for further assertions
+     */
+    private CourseSearchResponseDto assertSameJson(String searchResponse, int page, int size, String didYouMean)
+            throws IOException {
+        CourseSearchResponseDto expected = convert(searchResponse, page, size, didYouMean);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        long total = responseWriter.write(stream(searchResponse), page, size, didYouMean, out);
+
+        assertThat(total).isEqualTo(expected.getTotal());
+        assertThat(objectMapper.readTree(out.toByteArray()))
+            .isEqualTo(objectMapper.readTree(objectMapper.writeValueAsBytes(expected)));
+        return expected;
+    }
+
+    private CourseSearchResponseDto convert(String searchResponse, int page, int size, String didYouMean)
+            throws IOException {
+        JsonNode response = objectMapper.readTree(searchResponse);
+        List<CourseResponseDto> courses = new ArrayList<>();
+        for (JsonNode hit : response.path("hits").path("hits")) {
+            courses.add(CourseSearchService.toResponseDto(
+                hit.get("_id").asText(), (ObjectNode) hit.get("_source"), objectMapper));
+        }
+        return CourseSearchResponseDto.builder()
+            .total(response.path("hits").path("total").path("value").asLong())
+            .page(page)
+            .size(size)
+            .partial(response.path("timed_out").asBoolean() || response.path("_shards").path("failed").asInt() > 0)
+            .didYouMean(didYouMean)
+            .courses(courses)
+            .build();
+    }
+
+    private static ByteArrayInputStream stream(String json) {
+        return new ByteArrayInputStream(json.getBytes(StandardCharsets.UTF_8));
+    }
+}
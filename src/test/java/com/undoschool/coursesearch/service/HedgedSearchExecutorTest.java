@@ -0,0 +1,193 @@
+package com.undoschool.coursesearch.service;
+
+import com.undoschool.coursesearch.config.SearchProperties;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.dao.QueryTimeoutException;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class HedgedSearchExecutorTest {
+
+    private static final Duration HEDGE_DELAY = Duration.ofMillis(100);
+
+    private final ScheduledExecutorService scheduler = Executors.newScheduledThreadPool(2);
+
+    private SearchProperties properties;
+    private SearchLatencyTracker latencyTracker;
+    private List<String> preferences;
+    private Map<String, CompletableFuture<String>> attempts;
+
+    @BeforeEach
+    void setUp() {
+        properties = new SearchProperties();
+        properties.setBudget(Duration.ofSeconds(2));
+        properties.getHedge().setInitialDelay(HEDGE_DELAY);
+        latencyTracker = new SearchLatencyTracker(100);
+        preferences = new CopyOnWriteArrayList<>();
+        attempts = new ConcurrentHashMap<>();
+    }
+
+    @AfterEach
+    void tearDown() {
+        scheduler.shutdownNow();
+    }
+
+    @Test
+    void testFastPrimaryIsNotHedged() {
+        String result = executor().execute(attempt(preference -> completeAfter(0, "primary")));
+
+        assertThat(result).isEqualTo("primary");
+        assertThat(preferences).hasSize(1);
+        assertThat(latencyTracker.sampleCount()).isEqualTo(1);
+    }
+
+    @Test
+    void testHedgeFiresAfterDelay() {
+        long start = System.nanoTime();
+
+        String result = executor().execute(attempt(preference ->
+            isHedge(preference) ? completeAfter(0, "hedge") : completeAfter(5000, "primary")));
+
+        assertThat(result).isEqualTo("hedge");
+        assertThat(System.nanoTime() - start).isGreaterThanOrEqualTo(HEDGE_DELAY.toNanos());
+        assertThat(preferences).hasSize(2);
+        assertThat(preferences.get(1)).isEqualTo(preferences.get(0) + "-hedge");
+    }
+
+    @Test
+    void testLosingAttemptIsCancelled() {
+        executor().execute(attempt(preference ->
+            isHedge(preference) ? completeAfter(0, "hedge") : completeAfter(5000, "primary")));
+
+        assertThat(attempts.get(preferences.get(0)).isCancelled()).isTrue();
+    }
+
+    @Test
+    void testSlowPrimaryIsRecordedWhenHedgeWins() {
+        executor().execute(attempt(preference ->
+            isHedge(preference) ? completeAfter(0, "hedge") : completeAfter(5000, "primary")));
+
+        // The cancelled primary's elapsed time is kept as a lower bound of its latency
+        assertThat(latencyTracker.sampleCount()).isEqualTo(1);
+        assertThat(latencyTracker.percentile(100)).isGreaterThanOrEqualTo(HEDGE_DELAY.toNanos());
+    }
+
+    @Test
+    void testFirstSuccessfulAttemptWins() {
+        String result = executor().execute(attempt(preference ->
+            isHedge(preference) ? completeAfter(5000, "hedge") : completeAfter(HEDGE_DELAY.toMillis() * 2, "primary")));
+
+        assertThat(result).isEqualTo("primary");
+        assertThat(preferences).hasSize(2);
+        assertThat(attempts.get(preferences.get(1)).isCancelled()).isTrue();
+    }
+
+    @Test
+    void testRetryableFailureIsHedged() {
+        String result = executor().execute(attempt(preference ->
+            isHedge(preference) ? completeAfter(0, "hedge") : failAfter(0, new IOException("connection reset"))));
+
+        assertThat(result).isEqualTo("hedge");
+        assertThat(latencyTracker.sampleCount()).isZero();
+    }
+
+    @Test
+    void testBothAttemptsFail() {
+        assertThatThrownBy(() -> executor().execute(attempt(preference ->
+            failAfter(0, new IOException("failed " + preference)))))
+            .isInstanceOf(DataAccessResourceFailureException.class)
+            .hasCauseInstanceOf(IOException.class);
+        assertThat(preferences).hasSize(2);
+    }
+
+    @Test
+    void testDeterministicFailureIsNotHedged() {
+        assertThatThrownBy(() -> executor().execute(attempt(preference ->
+            failAfter(0, new IllegalArgumentException("bad query")))))
+            .isInstanceOf(IllegalArgumentException.class);
+        assertThat(preferences).hasSize(1);
+    }
+
+    @Test
+    void testBudgetExhaustionCancelsAttempts() {
+        properties.setBudget(Duration.ofMillis(300));
+
+        assertThatThrownBy(() -> executor().execute(attempt(preference -> completeAfter(5000, preference))))
+            .isInstanceOf(QueryTimeoutException.class);
+        assertThat(attempts.values()).hasSize(2).allMatch(CompletableFuture::isCancelled);
+    }
+
+    @Test
+    void testExpiredDeadlineStartsNoAttempt() {
+        assertThatThrownBy(() -> executor().execute(attempt(preference -> completeAfter(0, "primary")),
+            System.nanoTime() - 1))
+            .isInstanceOf(QueryTimeoutException.class);
+        assertThat(preferences).isEmpty();
+    }
+
+    @Test
+    void testHedgesAreCappedByTokenBucket() {
+        properties.getHedge().setBurst(1);
+        properties.getHedge().setMaxRatio(0);
+        HedgedSearchExecutor executor = executor();
+        Function<String, CompletableFuture<String>> slowPrimary = attempt(preference ->
+            isHedge(preference) ? completeAfter(0, "hedge") : completeAfter(HEDGE_DELAY.toMillis() * 3, "primary"));
+
+        assertThat(executor.execute(slowPrimary)).isEqualTo("hedge");
+        assertThat(executor.execute(slowPrimary)).isEqualTo("primary");
+        assertThat(preferences).hasSize(3);
+    }
+
+    @Test
+    void testRetryableErrors() {
+        assertThat(HedgedSearchExecutor.isRetryable(new IOException("connection reset"))).isTrue();
+        assertThat(HedgedSearchExecutor.isRetryable(new UncheckedIOException(new IOException("timeout")))).isTrue();
+        assertThat(HedgedSearchExecutor.isRetryable(new IllegalArgumentException("bad query"))).isFalse();
+    }
+
+    private HedgedSearchExecutor executor() {
+        return new HedgedSearchExecutor(properties, latencyTracker);
+    }
+
+    private Function<String, CompletableFuture<String>> attempt(Function<String, CompletableFuture<String>> attempt) {
+        return preference -> {
+            preferences.add(preference);
+            CompletableFuture<String> future = attempt.apply(preference);
+            attempts.put(preference, future);
+            return future;
+        };
+    }
+
+    private static boolean isHedge(String preference) {
+        return preference.endsWith("-hedge");
+    }
+
+    private CompletableFuture<String> completeAfter(long millis, String result) {
+        CompletableFuture<String> future = new CompletableFuture<>();
+        scheduler.schedule(() -> future.complete(result), millis, TimeUnit.MILLISECONDS);
+        return future;
+    }
+
+    private CompletableFuture<String> failAfter(long millis, Exception error) {
+        CompletableFuture<String> future = new CompletableFuture<>();
+        scheduler.schedule(() -> future.completeExceptionally(error), millis, TimeUnit.MILLISECONDS);
+        return future;
+    }
+}
@@ -0,0 +1,53 @@
+package com.undoschool.coursesearch.service;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class SearchLatencyTrackerTest {
+
+    @Test
+    void testPercentileWithoutSamples() {
+        SearchLatencyTracker tracker = new SearchLatencyTracker(10);
+
+        assertThat(tracker.sampleCount()).isZero();
+        assertThat(tracker.percentile(95)).isEqualTo(-1);
+    }
+
+    @Test
+    void testPercentileIndexing() {
+        SearchLatencyTracker tracker = new SearchLatencyTracker(100);
+        // Record out of order to make sure the samples are sorted
+        for (int i = 100; i >= 1; i--) {
+            tracker.record(i);
+        }
+
+        assertThat(tracker.sampleCount()).isEqualTo(100);
+        assertThat(tracker.percentile(0)).isEqualTo(1);
+        assertThat(tracker.percentile(50)).isEqualTo(50);
+        assertThat(tracker.percentile(95)).isEqualTo(95);
+        assertThat(tracker.percentile(99.5)).isEqualTo(100);
+        assertThat(tracker.percentile(100)).isEqualTo(100);
+    }
+
+    @Test
+    void testPercentileOfSingleSample() {
+        SearchLatencyTracker tracker = new SearchLatencyTracker(10);
+        tracker.record(42);
+
+        assertThat(tracker.percentile(0)).isEqualTo(42);
+        assertThat(tracker.percentile(95)).isEqualTo(42);
+    }
+
+    @Test
+    void testWindowKeepsMostRecentSamples() {
+        SearchLatencyTracker tracker = new SearchLatencyTracker(4);
+        for (int i = 1; i <= 10; i++) {
+            tracker.record(i * 100L);
+        }
+
+        assertThat(tracker.sampleCount()).isEqualTo(4);
+        assertThat(tracker.percentile(0)).isEqualTo(700);
+        assertThat(tracker.percentile(100)).isEqualTo(1000);
+    }
+}
@@ -0,0 +1,79 @@
+package com.undoschool.coursesearch.service;
+
+import co.elastic.clients.elasticsearch.ElasticsearchClient;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.undoschool.coursesearch.config.SearchProperties;
+import com.undoschool.coursesearch.config.WarmupProperties;
+import com.undoschool.coursesearch.dto.CourseSearchRequestDto;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InOrder;
+import org.springframework.context.ApplicationContext;
+
+import java.io.OutputStream;
+import java.util.List;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+
+class WarmupServiceTest {
+
+    private WarmupProperties warmupProperties;
+    private CourseSearchService courseSearchService;
+    private HedgedSearchExecutor hedgedSearchExecutor;
+    private ApplicationContext applicationContext;
+    private WarmupService warmupService;
+
+    @BeforeEach
+    void setUp() {
+        warmupProperties = new WarmupProperties();
+        warmupProperties.setIterations(2);
+        warmupProperties.setConnections(1);
+        warmupProperties.setQueries(List.of(new CourseSearchRequestDto()));
+        warmupProperties.setSuggestPrefixes(List.of("py"));
+
+        courseSearchService = mock(CourseSearchService.class);
+        hedgedSearchExecutor = mock(HedgedSearchExecutor.class);
+        applicationContext = mock(ApplicationContext.class);
+        warmupService = new WarmupService(warmupProperties, new SearchProperties(), mock(ElasticsearchClient.class),
+            courseSearchService, hedgedSearchExecutor, new ObjectMapper(), new SimpleMeterRegistry(), applicationContext);
+    }
+
+    @Test
+    void testWarmupRunsBeforeRunReturns() throws Exception {
+        warmupService.run();
+
+        // Readiness is left to Spring Boot, which only accepts traffic once every runner has returned
+        InOrder inOrder = inOrder(courseSearchService, hedgedSearchExecutor);
+        inOrder.verify(courseSearchService, times(2)).streamSearchCourses(any(CourseSearchRequestDto.class), any(OutputStream.class));
+        inOrder.verify(courseSearchService, times(2)).getSuggestions("py");
+        inOrder.verify(hedgedSearchExecutor).resetLatencies();
+        verifyNoInteractions(applicationContext);
+    }
+
+    @Test
+    void testWarmupFailureDoesNotFailStartup() throws Exception {
+        warmupProperties.setSuggestPrefixes(List.of());
+        doThrow(new IllegalStateException("cluster unavailable"))
+            .when(courseSearchService).streamSearchCourses(any(), any());
+
+        warmupService.run();
+
+        verify(hedgedSearchExecutor).resetLatencies();
+    }
+
+    @Test
+    void testDisabledWarmupRunsNoSearches() {
+        warmupProperties.setEnabled(false);
+
+        warmupService.run();
+
+        verifyNoInteractions(courseSearchService, hedgedSearchExecutor);
+    }
+}